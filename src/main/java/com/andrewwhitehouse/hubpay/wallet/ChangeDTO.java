@@ -0,0 +1,19 @@
+package com.andrewwhitehouse.hubpay.wallet;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeDTO {
+    long sequence;
+    String walletId;
+    OffsetDateTime created;
+    int amountPence;
+}
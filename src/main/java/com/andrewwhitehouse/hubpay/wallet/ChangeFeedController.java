@@ -0,0 +1,40 @@
+package com.andrewwhitehouse.hubpay.wallet;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+@Slf4j
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/changes")
+public class ChangeFeedController {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAXIMUM_LIMIT = 1000;
+    public static final int MAXIMUM_WAIT_SECONDS = 30;
+
+    private final ChangeFeedService changeFeedService;
+
+    // Returned asynchronously, so a long-poll does not hold a request thread while it waits
+    @GetMapping
+    public CompletableFuture<ResponseEntity<ChangesDTO>> changes(@RequestParam(name = "after", defaultValue = "0") Long afterSequence,
+                                                                 @RequestParam(name = "limit", defaultValue = "100") Integer limit,
+                                                                 @RequestParam(name = "wait", defaultValue = "0") Integer waitSeconds) {
+        if (afterSequence < 0) {
+            throw new IllegalArgumentException("Minimum after sequence is 0");
+        }
+        if (limit < 1 || limit > MAXIMUM_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAXIMUM_LIMIT);
+        }
+        if (waitSeconds < 0 || waitSeconds > MAXIMUM_WAIT_SECONDS) {
+            throw new IllegalArgumentException("Wait must be between 0 and " + MAXIMUM_WAIT_SECONDS + " seconds");
+        }
+        return changeFeedService.getChanges(afterSequence, limit, Duration.ofSeconds(waitSeconds))
+                .thenApply(ResponseEntity::ok);
+    }
+}
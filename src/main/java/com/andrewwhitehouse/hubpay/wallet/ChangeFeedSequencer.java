@@ -0,0 +1,122 @@
+package com.andrewwhitehouse.hubpay.wallet;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Gives committed wallet transactions their change feed sequence numbers.
+ *
+ * Numbers are handed out by this poller rather than on insert, so a consumer that has
+ * read up to sequence n can never later see a transaction numbered below n appear,
+ * however the original transactions interleaved. Each run continues from the highest
+ * number in the database, and the unique index on the sequence column rejects a run
+ * that races another instance; the loser simply tries again on its next run.
+ */
+@Slf4j
+@Component
+public class ChangeFeedSequencer {
+
+    private final WalletTransactionRepository walletTransactionRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Object monitor = new Object();
+
+    private final List<Waiter> waiters = new ArrayList<>();
+
+    private long latestSequence;
+
+    public ChangeFeedSequencer(WalletTransactionRepository walletTransactionRepository,
+                               TransactionTemplate transactionTemplate) {
+        this.walletTransactionRepository = walletTransactionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.latestSequence = maxSequence();
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.change-feed.sequence-interval-ms:100}")
+    public void sequencePending() {
+        long last;
+        try {
+            last = transactionTemplate.execute(status -> {
+                List<WalletTransaction> pending = walletTransactionRepository.findTop500BySequenceIsNullOrderByIdAsc();
+                long next = maxSequence();
+                for (WalletTransaction txn : pending) {
+                    txn.setSequence(++next);
+                }
+                walletTransactionRepository.saveAll(pending);
+                return next;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Change feed sequencing failed, will retry from the stored maximum", e);
+            last = maxSequence();
+        }
+        advanceTo(last);
+    }
+
+    public long getLatestSequence() {
+        synchronized (monitor) {
+            return latestSequence;
+        }
+    }
+
+    /**
+     * Completes with true once a sequence number above the given one has been committed.
+     * The caller is expected to time the future out; an incomplete future holds no thread.
+     */
+    public CompletableFuture<Boolean> sequenceAfter(long sequence) {
+        synchronized (monitor) {
+            if (latestSequence > sequence) {
+                return CompletableFuture.completedFuture(true);
+            }
+            Waiter waiter = new Waiter(sequence, new CompletableFuture<>());
+            waiters.add(waiter);
+            waiter.future.whenComplete((result, ex) -> {
+                synchronized (monitor) {
+                    waiters.remove(waiter);
+                }
+            });
+            return waiter.future;
+        }
+    }
+
+    private void advanceTo(long sequence) {
+        List<Waiter> ready = new ArrayList<>();
+        synchronized (monitor) {
+            if (sequence <= latestSequence) {
+                return;
+            }
+            log.debug("Change feed sequenced up to {}", sequence);
+            latestSequence = sequence;
+            for (Iterator<Waiter> it = waiters.iterator(); it.hasNext(); ) {
+                Waiter waiter = it.next();
+                if (waiter.sequence < sequence) {
+                    it.remove();
+                    ready.add(waiter);
+                }
+            }
+        }
+        ready.forEach(waiter -> waiter.future.complete(true));
+    }
+
+    private long maxSequence() {
+        Long max = walletTransactionRepository.findMaxSequence();
+        return max == null ? 0 : max;
+    }
+
+    private static final class Waiter {
+        private final long sequence;
+        private final CompletableFuture<Boolean> future;
+
+        Waiter(long sequence, CompletableFuture<Boolean> future) {
+            this.sequence = sequence;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.andrewwhitehouse.hubpay.wallet;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+public interface ChangeFeedService {
+    CompletableFuture<ChangesDTO> getChanges(long afterSequence, int limit, Duration wait);
+}
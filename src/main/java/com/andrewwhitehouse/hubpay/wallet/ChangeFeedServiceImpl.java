@@ -0,0 +1,70 @@
+package com.andrewwhitehouse.hubpay.wallet;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Long-polls wait on a future rather than a request thread, and the read runs on the
+// application task executor so that the sequencer's thread never queries on a consumer's behalf
+@Slf4j
+@Service
+public class ChangeFeedServiceImpl implements ChangeFeedService {
+
+    private final WalletTransactionRepository walletTransactionRepository;
+
+    private final ChangeFeedSequencer changeFeedSequencer;
+
+    private final Executor executor;
+
+    public ChangeFeedServiceImpl(WalletTransactionRepository walletTransactionRepository,
+                                 ChangeFeedSequencer changeFeedSequencer,
+                                 @Qualifier("applicationTaskExecutor") Executor executor) {
+        this.walletTransactionRepository = walletTransactionRepository;
+        this.changeFeedSequencer = changeFeedSequencer;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<ChangesDTO> getChanges(long afterSequence, int limit, Duration wait) {
+        CompletableFuture<Boolean> available = changeFeedSequencer.sequenceAfter(afterSequence);
+        if (available.isDone()) {
+            return CompletableFuture.completedFuture(read(afterSequence, limit));
+        }
+        return available
+                .completeOnTimeout(false, wait.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApplyAsync(ready -> ready
+                        ? read(afterSequence, limit)
+                        : toDTO(afterSequence, Collections.emptyList()), executor);
+    }
+
+    private ChangesDTO read(long afterSequence, int limit) {
+        return toDTO(afterSequence, walletTransactionRepository.findBySequenceGreaterThanOrderBySequenceAsc(
+                afterSequence, PageRequest.of(0, limit)));
+    }
+
+    private ChangesDTO toDTO(long afterSequence, List<WalletTransaction> txns) {
+        long nextAfter = txns.isEmpty() ? afterSequence : txns.get(txns.size() - 1).getSequence();
+        return ChangesDTO.builder()
+                .afterSequence(nextAfter)
+                .changes(txns.stream().map(this::toDTO).collect(Collectors.toList()))
+                .build();
+    }
+
+    private ChangeDTO toDTO(WalletTransaction txn) {
+        return ChangeDTO.builder()
+                .sequence(txn.getSequence())
+                .walletId(txn.getWalletId())
+                .created(txn.getCreated())
+                .amountPence(txn.getAmountPence())
+                .build();
+    }
+}
@@ -0,0 +1,18 @@
+package com.andrewwhitehouse.hubpay.wallet;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangesDTO {
+    // Pass back as the "after" parameter to read the next batch
+    long afterSequence;
+    List<ChangeDTO> changes;
+}
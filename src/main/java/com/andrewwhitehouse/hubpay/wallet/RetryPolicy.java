@@ -0,0 +1,49 @@
+package com.andrewwhitehouse.hubpay.wallet;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Bounded retries for conflicting wallet updates. Backoff is exponential with full
+ * jitter so that writers which collided do not collide again on the next attempt.
+ */
+@Component
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public RetryPolicy(@Value("${wallet.retry.max-attempts:5}") int maxAttempts,
+                       @Value("${wallet.retry.base-backoff:PT0.005S}") Duration baseBackoff,
+                       @Value("${wallet.retry.max-backoff:PT0.1S}") Duration maxBackoff) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is required");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 20));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    public void backoff(int attempt) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        long millis = backoffMillis(attempt);
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.andrewwhitehouse.hubpay.wallet;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory count and amount totals per key over a sliding time window.
+ *
+ * Each key owns a ring buffer of buckets, each covering window / buckets of time.
+ * Updates are guarded by a fixed set of striped locks so that unrelated keys
+ * rarely contend and no lock objects are allocated per key. A check is one lock and
+ * a scan of the buckets, well under a microsecond (see VelocityLimiterTest).
+ */
+public class SlidingWindowCounter {
+
+    private static final int STRIPES = 64;
+
+    private final long bucketMillis;
+    private final int buckets;
+    private final Clock clock;
+    private final Object[] locks = new Object[STRIPES];
+    private final ConcurrentMap<String, Ring> rings = new ConcurrentHashMap<>();
+
+    public SlidingWindowCounter(Duration window, int buckets, Clock clock) {
+        if (buckets < 1 || window.toMillis() < buckets) {
+            throw new IllegalArgumentException("Window must cover at least one millisecond per bucket");
+        }
+        this.bucketMillis = window.toMillis() / buckets;
+        this.buckets = buckets;
+        this.clock = clock;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Records one event of the given amount against the key, provided the totals
+     * within the window stay at or below the limits. Returns false, recording
+     * nothing, if either limit would be exceeded.
+     */
+    public boolean tryAcquire(String key, long amount, long maxCount, long maxAmount) {
+        long slot = clock.millis() / bucketMillis;
+        synchronized (lockFor(key)) {
+            Ring ring = rings.get(key);
+            if (ring == null) {
+                ring = new Ring(buckets);
+                rings.put(key, ring);
+            }
+            ring.expire(slot);
+            if (ring.count + 1 > maxCount || ring.amount + amount > maxAmount) {
+                return false;
+            }
+            ring.add(slot, amount);
+            return true;
+        }
+    }
+
+    /**
+     * Reverses a tryAcquire made moments earlier. If the clock has since moved on
+     * to a new bucket the event is left in place, erring on the side of the limit.
+     */
+    public void release(String key, long amount) {
+        long slot = clock.millis() / bucketMillis;
+        synchronized (lockFor(key)) {
+            Ring ring = rings.get(key);
+            if (ring == null) {
+                return;
+            }
+            ring.remove(slot, amount);
+            if (ring.count == 0) {
+                rings.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Drops keys with nothing left in the window, so idle wallets and customers do not hold memory.
+     */
+    public void purgeExpired() {
+        long slot = clock.millis() / bucketMillis;
+        for (String key : rings.keySet()) {
+            synchronized (lockFor(key)) {
+                Ring ring = rings.get(key);
+                if (ring != null) {
+                    ring.expire(slot);
+                    if (ring.count == 0) {
+                        rings.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    int size() {
+        return rings.size();
+    }
+
+    private Object lockFor(String key) {
+        return locks[(key.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    private static final class Ring {
+        private final long[] slots;
+        private final long[] counts;
+        private final long[] amounts;
+        private long count;
+        private long amount;
+
+        Ring(int buckets) {
+            slots = new long[buckets];
+            counts = new long[buckets];
+            amounts = new long[buckets];
+        }
+
+        void expire(long slot) {
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] <= slot - slots.length && counts[i] != 0) {
+                    count -= counts[i];
+                    amount -= amounts[i];
+                    counts[i] = 0;
+                    amounts[i] = 0;
+                }
+            }
+        }
+
+        void remove(long slot, long deltaAmount) {
+            int i = (int) (slot % slots.length);
+            if (slots[i] == slot && counts[i] > 0) {
+                counts[i]--;
+                amounts[i] -= deltaAmount;
+                count--;
+                amount -= deltaAmount;
+            }
+        }
+
+        void add(long slot, long deltaAmount) {
+            int i = (int) (slot % slots.length);
+            if (slots[i] != slot) {
+                count -= counts[i];
+                amount -= amounts[i];
+                slots[i] = slot;
+                counts[i] = 0;
+                amounts[i] = 0;
+            }
+            counts[i]++;
+            amounts[i] += deltaAmount;
+            count++;
+            amount += deltaAmount;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.andrewwhitehouse.hubpay.wallet;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Limits how many withdrawals, and how much in total, a wallet and a customer
+ * can make within a sliding window. Checked in memory ahead of the database write.
+ */
+@Component
+public class VelocityLimiter {
+
+    private final SlidingWindowCounter walletCounter;
+    private final SlidingWindowCounter customerCounter;
+    private final long walletMaxCount;
+    private final long walletMaxPence;
+    private final long customerMaxCount;
+    private final long customerMaxPence;
+
+    @Autowired
+    public VelocityLimiter(@Value("${wallet.velocity.window:PT1M}") Duration window,
+                           @Value("${wallet.velocity.buckets:12}") int buckets,
+                           @Value("${wallet.velocity.wallet.max-count:10}") long walletMaxCount,
+                           @Value("${wallet.velocity.wallet.max-pence:2000000}") long walletMaxPence,
+                           @Value("${wallet.velocity.customer.max-count:20}") long customerMaxCount,
+                           @Value("${wallet.velocity.customer.max-pence:5000000}") long customerMaxPence) {
+        this(window, buckets, walletMaxCount, walletMaxPence, customerMaxCount, customerMaxPence,
+                Clock.systemUTC());
+    }
+
+    VelocityLimiter(Duration window, int buckets,
+                    long walletMaxCount, long walletMaxPence,
+                    long customerMaxCount, long customerMaxPence,
+                    Clock clock) {
+        this.walletCounter = new SlidingWindowCounter(window, buckets, clock);
+        this.customerCounter = new SlidingWindowCounter(window, buckets, clock);
+        this.walletMaxCount = walletMaxCount;
+        this.walletMaxPence = walletMaxPence;
+        this.customerMaxCount = customerMaxCount;
+        this.customerMaxPence = customerMaxPence;
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.velocity.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        walletCounter.purgeExpired();
+        customerCounter.purgeExpired();
+    }
+
+    public void checkWithdrawal(String walletId, String customerId, int amountPence) {
+        if (!walletCounter.tryAcquire(walletId, amountPence, walletMaxCount, walletMaxPence)) {
+            throw new VelocityLimitExceededException("Wallet withdrawal limit exceeded, try again later");
+        }
+        if (!customerCounter.tryAcquire(customerId, amountPence, customerMaxCount, customerMaxPence)) {
+            walletCounter.release(walletId, amountPence);
+            throw new VelocityLimitExceededException("Customer withdrawal limit exceeded, try again later");
+        }
+    }
+
+    /**
+     * Returns a reservation taken by checkWithdrawal for a withdrawal that did not go ahead.
+     */
+    public void releaseWithdrawal(String walletId, String customerId, int amountPence) {
+        walletCounter.release(walletId, amountPence);
+        customerCounter.release(customerId, amountPence);
+    }
+}
@@ -9,6 +9,7 @@ import java.util.List;
 @Data
 @RequiredArgsConstructor
 @NoArgsConstructor
+@AllArgsConstructor
 @Builder
 @Table(name = "WALLETS")
 public class Wallet {
@@ -18,4 +19,7 @@ public class Wallet {
     private String customerId;
     @NonNull
     private Integer balancePence;
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
@@ -0,0 +1,11 @@
+package com.andrewwhitehouse.hubpay.wallet;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class WalletConflictException extends RuntimeException {
+    public WalletConflictException(String message) {
+        super(message);
+    }
+}
@@ -7,8 +7,18 @@ import org.springframework.data.repository.query.Param;
 
 public interface WalletRepository extends CrudRepository<Wallet, String> {
 
-    @Modifying
-    @Query("UPDATE Wallet w SET w.balancePence = w.balancePence + :amount WHERE w.id = :id")
+    // Bulk updates bypass the persistence context, so clear it to avoid reading stale Wallets afterwards
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Wallet w SET w.balancePence = w.balancePence + :amount, w.version = w.version + 1 " +
+            "WHERE w.id = :id")
     int adjustWalletBalance(@Param("id") String walletId,
                              @Param("amount") Integer adjustmentPence);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Wallet w SET w.balancePence = w.balancePence + :amount, w.version = w.version + 1 " +
+            "WHERE w.id = :id AND w.version = :version")
+    int adjustWalletBalanceAtVersion(@Param("id") String walletId,
+                                     @Param("amount") Integer adjustmentPence,
+                                     @Param("version") Long version);
 }
@@ -1,11 +1,13 @@
 package com.andrewwhitehouse.hubpay.wallet;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.transaction.Transactional;
 import java.time.OffsetDateTime;
@@ -25,6 +27,14 @@ public class WalletServiceImpl implements WalletService {
 
     private final WalletTransactionRepository walletTransactionRepository;
 
+    private final VelocityLimiter velocityLimiter;
+
+    private final RetryPolicy retryPolicy;
+
+    private final MeterRegistry meterRegistry;
+
+    private final TransactionTemplate transactionTemplate;
+
     @Override
     public Wallet findById(String walletId) {
         return walletRepository.findById(walletId).orElseThrow(ResourceNotFoundException::new);
@@ -58,7 +68,10 @@ public class WalletServiceImpl implements WalletService {
         walletTransactionRepository.save(txn);
     }
 
+    // Each attempt runs in its own transaction, so with open-in-view disabled the backoff holds no
+    // connection and a retry reads the latest committed balance on any isolation level
     @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public void withdraw(String walletId, int amountPence) {
         if (amountPence > MAXIMUM_ADD_PENCE) {
             throw new IllegalArgumentException("Amount is above withdrawal maximum");
@@ -67,20 +80,52 @@ public class WalletServiceImpl implements WalletService {
             throw new IllegalArgumentException("Cannot withdraw negative amount");
         }
         Wallet wallet = findById(walletId);
+        checkSufficientBalance(wallet, amountPence);
+        String customerId = wallet.getCustomerId();
+        velocityLimiter.checkWithdrawal(walletId, customerId, amountPence);
+        try {
+            int attempt = 1;
+            while (!tryWithdraw(walletId, amountPence, wallet.getVersion())) {
+                meterRegistry.counter("wallet.update.conflicts").increment();
+                if (attempt >= retryPolicy.getMaxAttempts()) {
+                    meterRegistry.counter("wallet.update.retries.exhausted").increment();
+                    throw new WalletConflictException("Wallet is being updated concurrently, try again");
+                }
+                try {
+                    retryPolicy.backoff(attempt++);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while retrying withdrawal", e);
+                }
+                meterRegistry.counter("wallet.update.retries").increment();
+                wallet = findById(walletId);
+                checkSufficientBalance(wallet, amountPence);
+            }
+        } catch (RuntimeException e) {
+            velocityLimiter.releaseWithdrawal(walletId, customerId, amountPence);
+            throw e;
+        }
+    }
+
+    private boolean tryWithdraw(String walletId, int amountPence, Long version) {
+        return transactionTemplate.execute(status -> {
+            if (walletRepository.adjustWalletBalanceAtVersion(walletId, -amountPence, version) == 0) {
+                return false;
+            }
+            WalletTransaction txn = WalletTransaction.builder()
+                    .walletId(walletId)
+                    .created(OffsetDateTime.now())
+                    .amountPence(-amountPence)
+                    .build();
+            walletTransactionRepository.save(txn);
+            return true;
+        });
+    }
+
+    private void checkSufficientBalance(Wallet wallet, int amountPence) {
         if (wallet.getBalancePence() < amountPence) {
             throw new IllegalArgumentException("Withdrawal amount must not exceed balance");
         }
-        int updated = walletRepository.adjustWalletBalance(walletId, -amountPence);
-        if (updated == 0) {
-            throw new IllegalStateException(String.format("adjustWalletBalance failed walletId {} amount {}",
-                    walletId, amountPence));
-        }
-        WalletTransaction txn = WalletTransaction.builder()
-                .walletId(walletId)
-                .created(OffsetDateTime.now())
-                .amountPence(-amountPence)
-                .build();
-        walletTransactionRepository.save(txn);
     }
 
     @Override
@@ -23,4 +23,7 @@ public class WalletTransaction {
     @NonNull
     private Integer amountPence;
     private OffsetDateTime created;
+    // Position in the change feed, assigned by ChangeFeedSequencer once the transaction has committed
+    @Column(unique = true)
+    private Long sequence;
 }
\ No newline at end of file
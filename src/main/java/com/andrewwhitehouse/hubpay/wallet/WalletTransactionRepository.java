@@ -3,10 +3,18 @@ package com.andrewwhitehouse.hubpay.wallet;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 
 public interface WalletTransactionRepository extends JpaRepository<WalletTransaction, Long> {
     Page<WalletTransaction> findAllByWalletId(String walletId, Pageable paging);
+
+    List<WalletTransaction> findTop500BySequenceIsNullOrderByIdAsc();
+
+    List<WalletTransaction> findBySequenceGreaterThanOrderBySequenceAsc(long sequence, Pageable paging);
+
+    @Query("SELECT MAX(t.sequence) FROM WalletTransaction t")
+    Long findMaxSequence();
 }
 
@@ -0,0 +1,16 @@
+CREATE TABLE IF NOT EXISTS wallets (
+    id VARCHAR(255) NOT NULL PRIMARY KEY,
+    customer_id VARCHAR(255) NOT NULL,
+    balance_pence INTEGER NOT NULL,
+    version BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS transactions (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    wallet_id VARCHAR(255) NOT NULL,
+    amount_pence INTEGER NOT NULL,
+    created TIMESTAMP,
+    sequence BIGINT UNIQUE
+);
+
+CREATE INDEX IF NOT EXISTS transactions_wallet_id ON transactions (wallet_id);
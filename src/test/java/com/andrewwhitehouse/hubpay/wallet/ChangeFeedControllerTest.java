@@ -0,0 +1,111 @@
+package com.andrewwhitehouse.hubpay.wallet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.AutoConfigureJsonTesters;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.json.JacksonTester;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.andrewwhitehouse.hubpay.wallet.ChangeFeedController.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@ExtendWith(SpringExtension.class)
+@AutoConfigureJsonTesters
+@WebMvcTest(ChangeFeedController.class)
+public class ChangeFeedControllerTest {
+
+    @MockBean
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private JacksonTester<ChangesDTO> jsonChangesResponse;
+
+    @Test
+    void shouldReturnChanges() throws Exception {
+        ChangeDTO change = ChangeDTO.builder()
+                .sequence(8)
+                .walletId("1234")
+                .amountPence(1000)
+                .created(OffsetDateTime.now())
+                .build();
+        when(changeFeedService.getChanges(7, 50, Duration.ofSeconds(20))).thenReturn(
+                CompletableFuture.completedFuture(ChangesDTO.builder()
+                        .afterSequence(8)
+                        .changes(List.of(change))
+                        .build()));
+
+        MvcResult result = mvc.perform(get("/changes")
+                        .queryParam("after", "7")
+                        .queryParam("limit", "50")
+                        .queryParam("wait", "20")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andReturn();
+        MockHttpServletResponse response = mvc.perform(asyncDispatch(result)).andReturn().getResponse();
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        ChangesDTO changes = jsonChangesResponse.parseObject(response.getContentAsString());
+        assertThat(changes.getAfterSequence()).isEqualTo(8);
+        assertThat(changes.getChanges()).hasSize(1);
+        assertThat(changes.getChanges().get(0).getWalletId()).isEqualTo("1234");
+    }
+
+    @Test
+    void shouldDefaultParameters() throws Exception {
+        when(changeFeedService.getChanges(anyLong(), anyInt(), any())).thenReturn(
+                CompletableFuture.completedFuture(ChangesDTO.builder().changes(List.of()).build()));
+
+        mvc.perform(get("/changes").contentType(MediaType.APPLICATION_JSON)).andReturn();
+
+        verify(changeFeedService).getChanges(0, DEFAULT_LIMIT, Duration.ZERO);
+    }
+
+    @Test
+    void shouldValidateAfterSequence() throws Exception {
+        MockHttpServletResponse response = changes("after", "-1");
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+        assertThat(response.getContentAsString()).isEqualTo("Minimum after sequence is 0");
+    }
+
+    @Test
+    void shouldValidateLimit() throws Exception {
+        assertThat(changes("limit", "0").getStatus()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+        MockHttpServletResponse response = changes("limit", String.valueOf(MAXIMUM_LIMIT + 1));
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+        assertThat(response.getContentAsString()).isEqualTo("Limit must be between 1 and 1000");
+    }
+
+    @Test
+    void shouldValidateWait() throws Exception {
+        assertThat(changes("wait", "-1").getStatus()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+        MockHttpServletResponse response = changes("wait", String.valueOf(MAXIMUM_WAIT_SECONDS + 1));
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST.value());
+        assertThat(response.getContentAsString()).isEqualTo("Wait must be between 0 and 30 seconds");
+        verifyNoInteractions(changeFeedService);
+    }
+
+    private MockHttpServletResponse changes(String parameter, String value) throws Exception {
+        return mvc.perform(get("/changes")
+                        .queryParam(parameter, value)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse();
+    }
+}
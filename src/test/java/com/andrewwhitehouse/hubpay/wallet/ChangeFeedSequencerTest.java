@@ -0,0 +1,116 @@
+package com.andrewwhitehouse.hubpay.wallet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ChangeFeedSequencerTest {
+
+    final String WALLET_ID = "1234";
+
+    @Mock
+    private WalletTransactionRepository walletTransactionRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ChangeFeedSequencer sequencer;
+
+    @BeforeEach
+    void setUp() {
+        when(walletTransactionRepository.findMaxSequence()).thenReturn(7L);
+        sequencer = new ChangeFeedSequencer(walletTransactionRepository, new TransactionTemplate(transactionManager));
+    }
+
+    @Test
+    void shouldContinueFromHighestStoredSequence() {
+        assertThat(sequencer.getLatestSequence()).isEqualTo(7);
+    }
+
+    @Test
+    void shouldAssignSequenceNumbersInOrder() {
+        WalletTransaction txn1 = transaction(1000);
+        WalletTransaction txn2 = transaction(-500);
+        when(walletTransactionRepository.findTop500BySequenceIsNullOrderByIdAsc()).thenReturn(List.of(txn1, txn2));
+
+        sequencer.sequencePending();
+
+        assertThat(txn1.getSequence()).isEqualTo(8);
+        assertThat(txn2.getSequence()).isEqualTo(9);
+        assertThat(sequencer.getLatestSequence()).isEqualTo(9);
+        verify(walletTransactionRepository).saveAll(List.of(txn1, txn2));
+    }
+
+    @Test
+    void shouldLeaveSequenceUnchangedWhenNothingPending() {
+        when(walletTransactionRepository.findTop500BySequenceIsNullOrderByIdAsc()).thenReturn(Collections.emptyList());
+
+        sequencer.sequencePending();
+
+        assertThat(sequencer.getLatestSequence()).isEqualTo(7);
+    }
+
+    @Test
+    void shouldContinueFromStoredMaximumAfterFailedRun() {
+        WalletTransaction txn = transaction(1000);
+        when(walletTransactionRepository.findTop500BySequenceIsNullOrderByIdAsc()).thenReturn(List.of(txn));
+        when(walletTransactionRepository.saveAll(List.of(txn)))
+                .thenThrow(new DataIntegrityViolationException("Unique index violation"))
+                .thenReturn(List.of(txn));
+        when(walletTransactionRepository.findMaxSequence()).thenReturn(7L, 12L, 12L, 12L);
+
+        sequencer.sequencePending();
+        assertThat(sequencer.getLatestSequence()).isEqualTo(12);
+
+        sequencer.sequencePending();
+        assertThat(txn.getSequence()).isEqualTo(13);
+        assertThat(sequencer.getLatestSequence()).isEqualTo(13);
+    }
+
+    @Test
+    void sequenceAfterShouldCompleteImmediatelyWhenAlreadySequenced() {
+        assertThat(sequencer.sequenceAfter(6)).isCompletedWithValue(true);
+    }
+
+    @Test
+    void sequenceAfterShouldStayIncompleteWhenNothingNew() {
+        when(walletTransactionRepository.findTop500BySequenceIsNullOrderByIdAsc()).thenReturn(Collections.emptyList());
+
+        CompletableFuture<Boolean> future = sequencer.sequenceAfter(7);
+        sequencer.sequencePending();
+
+        assertThat(future).isNotDone();
+    }
+
+    @Test
+    void sequenceAfterShouldCompleteWhenNewTransactionSequenced() {
+        when(walletTransactionRepository.findTop500BySequenceIsNullOrderByIdAsc()).thenReturn(List.of(transaction(1000)));
+
+        CompletableFuture<Boolean> future = sequencer.sequenceAfter(7);
+        sequencer.sequencePending();
+
+        assertThat(future).isCompletedWithValue(true);
+    }
+
+    private WalletTransaction transaction(int amountPence) {
+        return WalletTransaction.builder()
+                .walletId(WALLET_ID)
+                .amountPence(amountPence)
+                .created(OffsetDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,98 @@
+package com.andrewwhitehouse.hubpay.wallet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ChangeFeedServiceTest {
+
+    final String WALLET_ID = "1234";
+    final int LIMIT = 10;
+
+    private ChangeFeedService changeFeedService;
+
+    @Mock
+    private WalletTransactionRepository walletTransactionRepository;
+
+    @Mock
+    private ChangeFeedSequencer changeFeedSequencer;
+
+    @BeforeEach
+    void setUp() {
+        changeFeedService = new ChangeFeedServiceImpl(walletTransactionRepository, changeFeedSequencer, Runnable::run);
+    }
+
+    @Test
+    void shouldReturnChangesAfterSequence() {
+        when(changeFeedSequencer.sequenceAfter(4)).thenReturn(CompletableFuture.completedFuture(true));
+        when(walletTransactionRepository.findBySequenceGreaterThanOrderBySequenceAsc(4, PageRequest.of(0, LIMIT)))
+                .thenReturn(List.of(transaction(5, 1000), transaction(6, -500)));
+
+        ChangesDTO changes = changeFeedService.getChanges(4, LIMIT, Duration.ZERO).join();
+
+        assertThat(changes.getAfterSequence()).isEqualTo(6);
+        assertThat(changes.getChanges()).hasSize(2);
+        assertThat(changes.getChanges().get(0).getSequence()).isEqualTo(5);
+        assertThat(changes.getChanges().get(0).getWalletId()).isEqualTo(WALLET_ID);
+        assertThat(changes.getChanges().get(1).getAmountPence()).isEqualTo(-500);
+    }
+
+    @Test
+    void shouldKeepAfterSequenceWhenBatchIsEmpty() {
+        when(changeFeedSequencer.sequenceAfter(4)).thenReturn(CompletableFuture.completedFuture(true));
+        when(walletTransactionRepository.findBySequenceGreaterThanOrderBySequenceAsc(4, PageRequest.of(0, LIMIT)))
+                .thenReturn(Collections.emptyList());
+
+        ChangesDTO changes = changeFeedService.getChanges(4, LIMIT, Duration.ZERO).join();
+
+        assertThat(changes.getAfterSequence()).isEqualTo(4);
+        assertThat(changes.getChanges()).isEmpty();
+    }
+
+    @Test
+    void shouldNotQueryWhenWaitTimesOut() {
+        when(changeFeedSequencer.sequenceAfter(4)).thenReturn(new CompletableFuture<>());
+
+        ChangesDTO changes = changeFeedService.getChanges(4, LIMIT, Duration.ofMillis(10)).join();
+
+        assertThat(changes.getAfterSequence()).isEqualTo(4);
+        assertThat(changes.getChanges()).isEmpty();
+        verifyNoInteractions(walletTransactionRepository);
+    }
+
+    @Test
+    void shouldQueryOnceNewChangesAreSequenced() {
+        CompletableFuture<Boolean> available = new CompletableFuture<>();
+        when(changeFeedSequencer.sequenceAfter(4)).thenReturn(available);
+        when(walletTransactionRepository.findBySequenceGreaterThanOrderBySequenceAsc(4, PageRequest.of(0, LIMIT)))
+                .thenReturn(List.of(transaction(5, 1000)));
+
+        CompletableFuture<ChangesDTO> result = changeFeedService.getChanges(4, LIMIT, Duration.ofSeconds(5));
+        assertThat(result).isNotDone();
+        available.complete(true);
+
+        assertThat(result.join().getAfterSequence()).isEqualTo(5);
+    }
+
+    private WalletTransaction transaction(long sequence, int amountPence) {
+        return WalletTransaction.builder()
+                .walletId(WALLET_ID)
+                .amountPence(amountPence)
+                .created(OffsetDateTime.now())
+                .sequence(sequence)
+                .build();
+    }
+}
@@ -0,0 +1,63 @@
+package com.andrewwhitehouse.hubpay.wallet;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.Environment;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("production")
+class ProductionProfileTests {
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private Environment environment;
+
+	@Autowired
+	private WalletService walletService;
+
+	@Test
+	void shouldConfigureConnectionPool() {
+		HikariDataSource hikari = (HikariDataSource) dataSource;
+		assertThat(hikari.getPoolName()).isEqualTo("wallet-pool");
+		assertThat(hikari.getMaximumPoolSize()).isEqualTo(10);
+		assertThat(hikari.getConnectionTimeout()).isEqualTo(2000);
+		assertThat(hikari.getLeakDetectionThreshold()).isEqualTo(10000);
+	}
+
+	@Test
+	void shouldPublishConnectionPoolMetrics() {
+		assertThat(meterRegistry.find("hikaricp.connections.acquire").tag("pool", "wallet-pool").timer()).isNotNull();
+		assertThat(meterRegistry.find("hikaricp.connections.active").tag("pool", "wallet-pool").gauge()).isNotNull();
+		assertThat(meterRegistry.find("hikaricp.connections.idle").tag("pool", "wallet-pool").gauge()).isNotNull();
+		assertThat(meterRegistry.find("hikaricp.connections.timeout").tag("pool", "wallet-pool").counter()).isNotNull();
+	}
+
+	@Test
+	void shouldDisableDevelopmentSettings() {
+		assertThat(environment.getProperty("spring.jpa.show-sql")).isEqualTo("false");
+		assertThat(environment.getProperty("spring.h2.console.enabled")).isEqualTo("false");
+		assertThat(environment.getProperty("spring.jpa.hibernate.ddl-auto")).isEqualTo("validate");
+		assertThat(environment.getProperty("spring.jpa.open-in-view")).isEqualTo("false");
+	}
+
+	@Test
+	void shouldStoreWalletsInScriptedSchema() {
+		Wallet wallet = walletService.create("customer1");
+		walletService.addFunds(wallet.getId(), 2000);
+		walletService.withdraw(wallet.getId(), 500);
+		assertThat(walletService.findById(wallet.getId()).getBalancePence()).isEqualTo(1500);
+	}
+}
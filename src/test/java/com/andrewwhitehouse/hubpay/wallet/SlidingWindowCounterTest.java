@@ -0,0 +1,88 @@
+package com.andrewwhitehouse.hubpay.wallet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SlidingWindowCounterTest {
+
+    final String KEY = "wallet1";
+
+    private Clock clock;
+
+    private SlidingWindowCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        clock = mock(Clock.class);
+        when(clock.millis()).thenReturn(Instant.parse("2022-05-01T10:00:00Z").toEpochMilli());
+        counter = new SlidingWindowCounter(Duration.ofMinutes(1), 6, clock);
+    }
+
+    @Test
+    void shouldRejectWhenCountLimitReached() {
+        assertThat(counter.tryAcquire(KEY, 100, 2, 1000)).isTrue();
+        assertThat(counter.tryAcquire(KEY, 100, 2, 1000)).isTrue();
+        assertThat(counter.tryAcquire(KEY, 100, 2, 1000)).isFalse();
+    }
+
+    @Test
+    void shouldRejectWhenAmountLimitReached() {
+        assertThat(counter.tryAcquire(KEY, 600, 10, 1000)).isTrue();
+        assertThat(counter.tryAcquire(KEY, 401, 10, 1000)).isFalse();
+        assertThat(counter.tryAcquire(KEY, 400, 10, 1000)).isTrue();
+    }
+
+    @Test
+    void shouldTrackKeysIndependently() {
+        assertThat(counter.tryAcquire(KEY, 100, 1, 1000)).isTrue();
+        assertThat(counter.tryAcquire("wallet2", 100, 1, 1000)).isTrue();
+    }
+
+    @Test
+    void shouldForgetEventsOutsideWindow() {
+        long start = clock.millis();
+        assertThat(counter.tryAcquire(KEY, 100, 1, 1000)).isTrue();
+
+        when(clock.millis()).thenReturn(start + Duration.ofSeconds(59).toMillis());
+        assertThat(counter.tryAcquire(KEY, 100, 1, 1000)).isFalse();
+
+        when(clock.millis()).thenReturn(start + Duration.ofSeconds(60).toMillis());
+        assertThat(counter.tryAcquire(KEY, 100, 1, 1000)).isTrue();
+    }
+
+    @Test
+    void releaseShouldFreeCapacity() {
+        assertThat(counter.tryAcquire(KEY, 100, 1, 1000)).isTrue();
+        counter.release(KEY, 100);
+        assertThat(counter.tryAcquire(KEY, 100, 1, 1000)).isTrue();
+    }
+
+    @Test
+    void purgeShouldDropKeysWithNothingInWindow() {
+        long start = clock.millis();
+        assertThat(counter.tryAcquire(KEY, 100, 1, 1000)).isTrue();
+        when(clock.millis()).thenReturn(start + Duration.ofSeconds(30).toMillis());
+        assertThat(counter.tryAcquire("wallet2", 100, 1, 1000)).isTrue();
+
+        when(clock.millis()).thenReturn(start + Duration.ofSeconds(60).toMillis());
+        counter.purgeExpired();
+
+        assertThat(counter.size()).isEqualTo(1);
+        assertThat(counter.tryAcquire("wallet2", 100, 1, 1000)).isFalse();
+    }
+
+    @Test
+    void releaseShouldDropKeyWhenEmpty() {
+        assertThat(counter.tryAcquire(KEY, 100, 1, 1000)).isTrue();
+        counter.release(KEY, 100);
+        assertThat(counter.size()).isZero();
+    }
+}
@@ -0,0 +1,96 @@
+package com.andrewwhitehouse.hubpay.wallet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class VelocityLimiterTest {
+
+    final String WALLET_ID = "1234";
+    final String OTHER_WALLET_ID = "5678";
+    final String CUSTOMER_ID = "customer1";
+
+    private VelocityLimiter velocityLimiter;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = mock(Clock.class);
+        when(clock.millis()).thenReturn(Instant.parse("2022-05-01T10:00:00Z").toEpochMilli());
+        // Wallets may make 2 withdrawals totalling up to 5000; customers 3 totalling up to 8000
+        velocityLimiter = new VelocityLimiter(Duration.ofMinutes(1), 12, 2, 5000, 3, 8000, clock);
+    }
+
+    @Test
+    void shouldRejectWhenWalletLimitExceeded() {
+        velocityLimiter.checkWithdrawal(WALLET_ID, CUSTOMER_ID, 1000);
+        velocityLimiter.checkWithdrawal(WALLET_ID, CUSTOMER_ID, 1000);
+
+        VelocityLimitExceededException thrown = assertThrows(VelocityLimitExceededException.class, () -> {
+            velocityLimiter.checkWithdrawal(WALLET_ID, CUSTOMER_ID, 1000);
+        });
+        assertThat(thrown.getMessage()).isEqualTo("Wallet withdrawal limit exceeded, try again later");
+    }
+
+    @Test
+    void shouldRejectWhenWalletAmountExceeded() {
+        velocityLimiter.checkWithdrawal(WALLET_ID, CUSTOMER_ID, 4000);
+
+        assertThrows(VelocityLimitExceededException.class, () -> {
+            velocityLimiter.checkWithdrawal(WALLET_ID, CUSTOMER_ID, 1001);
+        });
+    }
+
+    @Test
+    void customerRejectionShouldReturnWalletReservation() {
+        velocityLimiter.checkWithdrawal(OTHER_WALLET_ID, CUSTOMER_ID, 4000);
+        velocityLimiter.checkWithdrawal(OTHER_WALLET_ID, CUSTOMER_ID, 1000);
+
+        VelocityLimitExceededException thrown = assertThrows(VelocityLimitExceededException.class, () -> {
+            velocityLimiter.checkWithdrawal(WALLET_ID, CUSTOMER_ID, 4000);
+        });
+        assertThat(thrown.getMessage()).isEqualTo("Customer withdrawal limit exceeded, try again later");
+
+        // Had the wallet kept the rejected 4000, a further 2000 would exceed its 5000 limit
+        assertDoesNotThrow(() -> velocityLimiter.checkWithdrawal(WALLET_ID, "customer2", 2000));
+        assertDoesNotThrow(() -> velocityLimiter.checkWithdrawal(WALLET_ID, "customer2", 3000));
+    }
+
+    @Test
+    void releaseWithdrawalShouldReturnWalletAndCustomerReservations() {
+        velocityLimiter.checkWithdrawal(WALLET_ID, CUSTOMER_ID, 4000);
+        velocityLimiter.checkWithdrawal(WALLET_ID, CUSTOMER_ID, 1000);
+        velocityLimiter.releaseWithdrawal(WALLET_ID, CUSTOMER_ID, 1000);
+        velocityLimiter.releaseWithdrawal(WALLET_ID, CUSTOMER_ID, 4000);
+
+        assertDoesNotThrow(() -> velocityLimiter.checkWithdrawal(WALLET_ID, CUSTOMER_ID, 5000));
+        assertDoesNotThrow(() -> velocityLimiter.checkWithdrawal(OTHER_WALLET_ID, CUSTOMER_ID, 3000));
+    }
+
+    @Test
+    void checkShouldTakeMicroseconds() {
+        VelocityLimiter unlimited = new VelocityLimiter(Duration.ofMinutes(1), 12,
+                Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Clock.systemUTC());
+        final int CHECKS = 200_000;
+        for (int i = 0; i < CHECKS; i++) {
+            unlimited.checkWithdrawal("wallet" + (i % 1000), "customer" + (i % 100), 1);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < CHECKS; i++) {
+            unlimited.checkWithdrawal("wallet" + (i % 1000), "customer" + (i % 100), 1);
+        }
+        long nanosPerCheck = (System.nanoTime() - start) / CHECKS;
+
+        System.err.printf("Velocity check: %d ns%n", nanosPerCheck);
+        assertThat(nanosPerCheck).isLessThan(Duration.ofMillis(1).toNanos() / 20);
+    }
+}
@@ -0,0 +1,110 @@
+package com.andrewwhitehouse.hubpay.wallet;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares withdrawal throughput on a single hot wallet using optimistic versioned updates
+ * (as WalletServiceImpl does) against pessimistic SELECT ... FOR UPDATE locking.
+ *
+ * Not picked up by a plain "mvn test"; run with "mvn test -Dtest=WalletContentionBenchmark".
+ */
+@SpringBootTest(properties = {
+        "wallet.velocity.wallet.max-count=1000000",
+        "wallet.velocity.wallet.max-pence=1000000000",
+        "wallet.velocity.customer.max-count=1000000",
+        "wallet.velocity.customer.max-pence=1000000000",
+        "spring.jpa.show-sql=false"
+})
+public class WalletContentionBenchmark {
+
+    private static final int THREADS = 8;
+    private static final int WITHDRAWALS_PER_THREAD = 250;
+    private static final int AMOUNT_PENCE = 100;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletTransactionRepository walletTransactionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void compareOptimisticWithPessimisticLocking() throws Exception {
+        run("optimistic", walletId -> walletService.withdraw(walletId, AMOUNT_PENCE));
+        run("pessimistic", this::withdrawForUpdate);
+    }
+
+    private void withdrawForUpdate(String walletId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Wallet wallet = entityManager.find(Wallet.class, walletId, LockModeType.PESSIMISTIC_WRITE);
+            if (wallet.getBalancePence() < AMOUNT_PENCE) {
+                throw new IllegalArgumentException("Withdrawal amount must not exceed balance");
+            }
+            wallet.setBalancePence(wallet.getBalancePence() - AMOUNT_PENCE);
+            walletTransactionRepository.save(WalletTransaction.builder()
+                    .walletId(walletId)
+                    .created(OffsetDateTime.now())
+                    .amountPence(-AMOUNT_PENCE)
+                    .build());
+        });
+    }
+
+    private void run(String name, Withdrawal withdrawal) throws Exception {
+        int total = THREADS * WITHDRAWALS_PER_THREAD;
+        int openingBalance = total * AMOUNT_PENCE;
+        String walletId = walletService.create("benchmark").getId();
+        walletService.addFunds(walletId, openingBalance);
+
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < WITHDRAWALS_PER_THREAD; i++) {
+                    try {
+                        withdrawal.withdraw(walletId);
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        executor.shutdown();
+
+        int succeeded = total - failures.get();
+        System.err.printf("%s: %d withdrawals (%d failed) in %d ms, %.0f ops/s%n",
+                name, total, failures.get(), elapsedNanos / 1_000_000,
+                succeeded / (elapsedNanos / 1e9));
+        assertThat(walletService.findById(walletId).getBalancePence())
+                .isEqualTo(openingBalance - succeeded * AMOUNT_PENCE);
+    }
+
+    private interface Withdrawal {
+        void withdraw(String walletId);
+    }
+}
@@ -82,6 +82,29 @@ public class WalletControllerTest {
         assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_FOUND.value());
     }
 
+    @Test
+    void shouldReturnConflictWhenWithdrawalContended() throws Exception {
+        final int AMOUNT_TO_WITHDRAW = 5000;
+        doThrow(new WalletConflictException("Wallet is being updated concurrently, try again"))
+                .when(walletService).withdraw(WALLET_ID, AMOUNT_TO_WITHDRAW);
+
+        MockHttpServletResponse response = withdrawFunds(WALLET_ID, AMOUNT_TO_WITHDRAW);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.CONFLICT.value());
+    }
+
+    @Test
+    void shouldRejectWithdrawalOverVelocityLimit() throws Exception {
+        final int AMOUNT_TO_WITHDRAW = 5000;
+        doThrow(new VelocityLimitExceededException("Wallet withdrawal limit exceeded, try again later"))
+                .when(walletService).withdraw(WALLET_ID, AMOUNT_TO_WITHDRAW);
+
+        MockHttpServletResponse response = withdrawFunds(WALLET_ID, AMOUNT_TO_WITHDRAW);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(response.getContentAsString()).isEqualTo("Wallet withdrawal limit exceeded, try again later");
+    }
+
     @Test
     void shouldValidatePageNumber() throws Exception {
         MockHttpServletResponse response = mvc.perform(get("/wallets/{walletId}/transactions", WALLET_ID)
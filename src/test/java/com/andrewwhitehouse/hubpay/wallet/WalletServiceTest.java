@@ -1,5 +1,7 @@
 package com.andrewwhitehouse.hubpay.wallet;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,7 +13,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -26,20 +31,34 @@ public class WalletServiceTest {
     final String CUSTOMER_ID = "customer1";
     final int WALLET_BALANCE = 5000;
 
+    final long WALLET_VERSION = 3;
+    final int MAX_ATTEMPTS = 3;
+
     private WalletService walletService;
 
+    private MeterRegistry meterRegistry;
+
     @Mock
     private WalletRepository walletRepository;
 
     @Mock
     private WalletTransactionRepository walletTransactionRepository;
 
+    @Mock
+    private VelocityLimiter velocityLimiter;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @Captor
     private ArgumentCaptor<WalletTransaction> transactionCaptor;
 
     @BeforeEach
     void setUp() {
-        walletService = new WalletServiceImpl(walletRepository, walletTransactionRepository);
+        meterRegistry = new SimpleMeterRegistry();
+        walletService = new WalletServiceImpl(walletRepository, walletTransactionRepository, velocityLimiter,
+                new RetryPolicy(MAX_ATTEMPTS, Duration.ZERO, Duration.ZERO), meterRegistry,
+                new TransactionTemplate(transactionManager));
     }
 
     @Test
@@ -78,8 +97,8 @@ public class WalletServiceTest {
     void withdrawFundsShouldReduceBalance() {
         final int AMOUNT = 2000;
         when(walletRepository.findById(WALLET_ID))
-                .thenReturn(Optional.of(new Wallet(WALLET_ID, "", 3000)));
-        when(walletRepository.adjustWalletBalance(WALLET_ID, -AMOUNT)).thenReturn(1);
+                .thenReturn(Optional.of(new Wallet(WALLET_ID, "", 3000, WALLET_VERSION)));
+        when(walletRepository.adjustWalletBalanceAtVersion(WALLET_ID, -AMOUNT, WALLET_VERSION)).thenReturn(1);
 
         walletService.withdraw(WALLET_ID, 2000);
 
@@ -152,14 +171,87 @@ public class WalletServiceTest {
     }
 
     @Test
-    void withdrawShouldReturnExceptionIfUpdateFails() {
+    void withdrawShouldReturnConflictIfUpdateKeepsFailing() {
+        when(walletRepository.findById(WALLET_ID))
+                .thenReturn(Optional.of(new Wallet(WALLET_ID, CUSTOMER_ID, 10000, WALLET_VERSION)));
+        when(walletRepository.adjustWalletBalanceAtVersion(WALLET_ID, -2000, WALLET_VERSION)).thenReturn(0);
+
+        assertThrows(WalletConflictException.class, () -> {
+            walletService.withdraw(WALLET_ID, 2000);
+        });
+        verify(walletRepository, times(MAX_ATTEMPTS)).adjustWalletBalanceAtVersion(WALLET_ID, -2000, WALLET_VERSION);
+        verifyNoInteractions(walletTransactionRepository);
+        assertThat(meterRegistry.counter("wallet.update.conflicts").count()).isEqualTo(MAX_ATTEMPTS);
+        assertThat(meterRegistry.counter("wallet.update.retries").count()).isEqualTo(MAX_ATTEMPTS - 1);
+        assertThat(meterRegistry.counter("wallet.update.retries.exhausted").count()).isEqualTo(1);
+        verify(velocityLimiter).releaseWithdrawal(WALLET_ID, CUSTOMER_ID, 2000);
+        verify(transactionManager, times(MAX_ATTEMPTS)).getTransaction(any());
+    }
+
+    @Test
+    void withdrawShouldStopRetryingWhenInterrupted() {
+        when(walletRepository.findById(WALLET_ID))
+                .thenReturn(Optional.of(new Wallet(WALLET_ID, CUSTOMER_ID, 10000, WALLET_VERSION)));
+        when(walletRepository.adjustWalletBalanceAtVersion(WALLET_ID, -2000, WALLET_VERSION)).thenReturn(0);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(IllegalStateException.class, () -> {
+                walletService.withdraw(WALLET_ID, 2000);
+            });
+            assertThat(Thread.currentThread().isInterrupted()).isTrue();
+        } finally {
+            Thread.interrupted();
+        }
+        verify(walletRepository, times(1)).adjustWalletBalanceAtVersion(WALLET_ID, -2000, WALLET_VERSION);
+        verify(velocityLimiter).releaseWithdrawal(WALLET_ID, CUSTOMER_ID, 2000);
+        assertThat(meterRegistry.counter("wallet.update.retries").count()).isZero();
+    }
+
+    @Test
+    void withdrawShouldRetryAgainstLatestVersionAfterConflict() {
+        when(walletRepository.findById(WALLET_ID))
+                .thenReturn(Optional.of(new Wallet(WALLET_ID, CUSTOMER_ID, 10000, WALLET_VERSION)))
+                .thenReturn(Optional.of(new Wallet(WALLET_ID, CUSTOMER_ID, 9000, WALLET_VERSION + 1)));
+        when(walletRepository.adjustWalletBalanceAtVersion(WALLET_ID, -2000, WALLET_VERSION)).thenReturn(0);
+        when(walletRepository.adjustWalletBalanceAtVersion(WALLET_ID, -2000, WALLET_VERSION + 1)).thenReturn(1);
+
+        walletService.withdraw(WALLET_ID, 2000);
+
+        verify(walletTransactionRepository).save(transactionCaptor.capture());
+        assertThat(transactionCaptor.getValue().getAmountPence()).isEqualTo(-2000);
+        assertThat(meterRegistry.counter("wallet.update.conflicts").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("wallet.update.retries").count()).isEqualTo(1);
+        verify(velocityLimiter, never()).releaseWithdrawal(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    void withdrawShouldRecheckBalanceAfterConflict() {
+        when(walletRepository.findById(WALLET_ID))
+                .thenReturn(Optional.of(new Wallet(WALLET_ID, CUSTOMER_ID, 3000, WALLET_VERSION)))
+                .thenReturn(Optional.of(new Wallet(WALLET_ID, CUSTOMER_ID, 1000, WALLET_VERSION + 1)));
+        when(walletRepository.adjustWalletBalanceAtVersion(WALLET_ID, -2000, WALLET_VERSION)).thenReturn(0);
+
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> {
+            walletService.withdraw(WALLET_ID, 2000);
+        });
+        assertThat(thrown.getMessage()).isEqualTo("Withdrawal amount must not exceed balance");
+        verifyNoInteractions(walletTransactionRepository);
+        verify(velocityLimiter).releaseWithdrawal(WALLET_ID, CUSTOMER_ID, 2000);
+    }
+
+    @Test
+    void withdrawShouldNotUpdateBalanceWhenVelocityLimitExceeded() {
         when(walletRepository.findById(WALLET_ID))
                 .thenReturn(Optional.of(new Wallet(WALLET_ID, CUSTOMER_ID, 10000)));
-        when(walletRepository.adjustWalletBalance(WALLET_ID, -2000)).thenReturn(0);
+        doThrow(new VelocityLimitExceededException("Wallet withdrawal limit exceeded, try again later"))
+                .when(velocityLimiter).checkWithdrawal(WALLET_ID, CUSTOMER_ID, 2000);
 
-        assertThrows(IllegalStateException.class, () -> {
+        assertThrows(VelocityLimitExceededException.class, () -> {
             walletService.withdraw(WALLET_ID, 2000);
         });
+        verify(walletRepository, never()).adjustWalletBalanceAtVersion(anyString(), anyInt(), anyLong());
+        verifyNoInteractions(walletTransactionRepository);
     }
 
     @Test
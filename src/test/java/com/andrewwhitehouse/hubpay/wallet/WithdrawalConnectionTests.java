@@ -0,0 +1,77 @@
+package com.andrewwhitehouse.hubpay.wallet;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Withdraws through the web layer, as a client would, and checks that a retry's backoff
+ * is not spent holding a pooled connection.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class WithdrawalConnectionTests {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @MockBean
+    private VelocityLimiter velocityLimiter;
+
+    @MockBean
+    private RetryPolicy retryPolicy;
+
+    // Keeps the scheduled sequencer from using connections while the test measures them
+    @MockBean
+    private ChangeFeedSequencer changeFeedSequencer;
+
+    @Test
+    void shouldNotHoldConnectionDuringBackoff() throws Exception {
+        String walletId = walletService.create("customer1").getId();
+        walletService.addFunds(walletId, 5000);
+
+        // A deposit between the balance check and the update forces one conflict and retry
+        doAnswer(invocation -> {
+            walletService.addFunds(walletId, 1000);
+            return null;
+        }).when(velocityLimiter).checkWithdrawal(anyString(), anyString(), anyInt());
+        List<Integer> activeDuringBackoff = new ArrayList<>();
+        when(retryPolicy.getMaxAttempts()).thenReturn(3);
+        doAnswer(invocation -> {
+            activeDuringBackoff.add(((HikariDataSource) dataSource).getHikariPoolMXBean().getActiveConnections());
+            return null;
+        }).when(retryPolicy).backoff(anyInt());
+
+        int status = mvc.perform(post("/wallets/{walletId}/withdraw-funds", walletId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amountPence\": 2000}"))
+                .andReturn().getResponse().getStatus();
+
+        assertThat(status).isEqualTo(HttpStatus.NO_CONTENT.value());
+        assertThat(activeDuringBackoff).containsExactly(0);
+        assertThat(walletService.findById(walletId).getBalancePence()).isEqualTo(4000);
+    }
+}